@@ -0,0 +1,137 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.vaccine.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.isf.utils.exception.OHServiceException;
+import org.isf.vaccine.manager.VaccineBrowserManager;
+import org.isf.vaccine.model.Vaccine;
+import org.isf.vaccine.service.VaccineIoOperationRepository;
+import org.isf.vactype.model.VaccineType;
+
+/**
+ * Model steps for one {@link VaccineModelLoadGenerator} worker.
+ * <p>
+ * Unlike the {@link VaccinesTests} steps, which share one fixture code, every walker works on its own
+ * vaccine codes ({@code L<worker>.<sequence>}), so concurrent walks exercise the real
+ * {@link VaccineBrowserManager} flows and the vertex assertions only look at the walker's own data.
+ * Not thread-safe: each worker gets its own instance.
+ */
+public class VaccineLoadWalker implements VaccineManagerInterface {
+
+	private final VaccineBrowserManager vaccineBrowserManager;
+	private final VaccineIoOperationRepository vaccineIoOperationRepository;
+	private final VaccineType vaccineType;
+	private final String codePrefix;
+
+	private int sequence;
+	private Vaccine current;
+	private String deletedCode;
+	private String description;
+
+	public VaccineLoadWalker(VaccineBrowserManager vaccineBrowserManager, VaccineIoOperationRepository vaccineIoOperationRepository,
+			VaccineType vaccineType, int worker) {
+		this.vaccineBrowserManager = vaccineBrowserManager;
+		this.vaccineIoOperationRepository = vaccineIoOperationRepository;
+		this.vaccineType = vaccineType;
+		this.codePrefix = "L" + worker + '.';
+	}
+
+	private String nextCode() {
+		return codePrefix + Integer.toString(sequence++, Character.MAX_RADIX);
+	}
+
+	private Vaccine currentVaccine() {
+		// walks that reach a step before e_createVaccine need a vaccine of their own
+		if (current == null) {
+			current = vaccineIoOperationRepository.saveAndFlush(new Vaccine(nextCode(), "Load vaccine", vaccineType));
+		}
+		return current;
+	}
+
+	@Override
+	public void e_deleteVaccine() throws OHServiceException {
+		Vaccine vaccine = currentVaccine();
+		vaccineBrowserManager.deleteVaccine(vaccine);
+		deletedCode = vaccine.getCode();
+		current = null;
+	}
+
+	@Override
+	public void e_listVaccines() throws OHServiceException {
+		vaccineBrowserManager.getVaccine();
+	}
+
+	@Override
+	public void e_createVaccine() throws OHServiceException {
+		Vaccine vaccine = new Vaccine(nextCode(), "Load vaccine", vaccineType);
+		vaccineBrowserManager.newVaccine(vaccine);
+		current = vaccine;
+	}
+
+	@Override
+	public void v_VaccineCreated() {
+		assertThat(vaccineBrowserManager.findVaccine(currentVaccine().getCode())).isNotNull();
+	}
+
+	@Override
+	public void v_VaccineDeleted() {
+		assertThat(deletedCode).isNotNull();
+		assertThat(vaccineBrowserManager.findVaccine(deletedCode)).isNull();
+	}
+
+	@Override
+	public void e_updateVaccine() throws OHServiceException {
+		Vaccine vaccine = currentVaccine();
+		description = "Load vaccine " + sequence++;
+		vaccine.setDescription(description);
+		vaccineBrowserManager.updateVaccine(vaccine);
+	}
+
+	@Override
+	public void v_VaccineList() throws OHServiceException {
+		List<Vaccine> vaccines = vaccineBrowserManager.getVaccine();
+		assertThat(vaccines).isInstanceOf(List.class);
+	}
+
+	@Override
+	public void e_notFindVaccine() {
+		// '-' never appears in a generated code
+		assertThat(vaccineBrowserManager.findVaccine(codePrefix + '-')).isNull();
+	}
+
+	@Override
+	public void e_findVaccine() {
+		assertThat(vaccineBrowserManager.findVaccine(currentVaccine().getCode())).isNotNull();
+	}
+
+	@Override
+	public void v_VaccineUpdated() {
+		// reload, so that the next update starts from the persisted version
+		current = vaccineBrowserManager.findVaccine(currentVaccine().getCode());
+		assertThat(current).isNotNull();
+		assertThat(current.getDescription()).isEqualTo(description);
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.vaccine.test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.graphwalker.core.model.Edge.RuntimeEdge;
+import org.graphwalker.core.model.Element;
+import org.graphwalker.core.model.Model.RuntimeModel;
+import org.graphwalker.core.model.Vertex.RuntimeVertex;
+import org.graphwalker.io.factory.json.JsonContextFactory;
+
+/**
+ * Replays random walks of the {@link VaccineManagerInterface} model from several workers at a target
+ * step rate. Each worker drives its own target, obtained from a factory by worker index, so that
+ * concurrent walks do not collide on shared data; {@link VaccinesTests} uses {@link VaccineLoadWalker}
+ * instances, each working on its own vaccine codes against the real VaccineBrowserManager.
+ * <p>
+ * Every step, edge call or vertex assertion, gets a slot in a shared fixed-rate schedule, and its
+ * latency is measured from that slot rather than from the moment it actually started, so time spent
+ * queueing behind a slow system shows up in the histograms. Successful and failed steps are kept in
+ * separate histograms (microseconds) and failures do not stop the walk.
+ */
+public class VaccineModelLoadGenerator {
+
+	private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+
+	private final IntFunction<? extends VaccineManagerInterface> targets;
+	private final RuntimeModel model;
+	private final RuntimeVertex startVertex;
+	private final Map<String, Method> steps = new HashMap<>();
+	private final Map<String, ElementStats> stats = new LinkedHashMap<>();
+
+	public VaccineModelLoadGenerator(IntFunction<? extends VaccineManagerInterface> targets, Path modelPath,
+			String startVertexName) throws IOException {
+		this(targets, new JsonContextFactory().create(modelPath).get(0).getModel(), startVertexName);
+	}
+
+	public VaccineModelLoadGenerator(IntFunction<? extends VaccineManagerInterface> targets, RuntimeModel model,
+			String startVertexName) {
+		this.targets = targets;
+		this.model = model;
+		List<RuntimeVertex> start = model.findVertices(startVertexName);
+		if (start == null || start.isEmpty()) {
+			throw new IllegalArgumentException("Start vertex not found in model: " + startVertexName);
+		}
+		this.startVertex = start.get(0);
+		List<RuntimeEdge> startEdges = model.getOutEdges(startVertex);
+		if (startEdges == null || startEdges.isEmpty()) {
+			throw new IllegalArgumentException("Start vertex has no outgoing edges: " + startVertexName);
+		}
+		for (RuntimeVertex vertex : model.getVertices()) {
+			register(vertex, "vertex");
+		}
+		for (RuntimeEdge edge : model.getEdges()) {
+			register(edge, "edge");
+		}
+	}
+
+	private void register(Element element, String kind) {
+		if (!element.hasName() || steps.containsKey(element.getName())) {
+			return;
+		}
+		try {
+			steps.put(element.getName(), VaccineManagerInterface.class.getMethod(element.getName()));
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("No VaccineManagerInterface method for model element: " + element.getName(), e);
+		}
+		stats.put(element.getName(), new ElementStats(kind, element.getName()));
+	}
+
+	/**
+	 * Runs {@code workers} concurrent random walks for {@code duration}, scheduling the steps of all
+	 * workers together so that {@code stepsPerSecond} steps (edges and vertex assertions alike) are
+	 * due per second. Unnamed model elements are walked through without taking a slot.
+	 *
+	 * @throws IllegalStateException if a worker failed or the workers did not stop in time
+	 */
+	public void run(int workers, int stepsPerSecond, Duration duration) throws InterruptedException {
+		long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, stepsPerSecond);
+		List<VaccineManagerInterface> workerTargets = new ArrayList<>();
+		for (int i = 0; i < workers; i++) {
+			workerTargets.add(targets.apply(i));
+		}
+		long deadline = System.nanoTime() + duration.toNanos();
+		AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Future<?>> walkers = new ArrayList<>();
+			for (VaccineManagerInterface target : workerTargets) {
+				walkers.add(executor.submit(() -> walk(target, nextSlot, interval, deadline)));
+			}
+			executor.shutdown();
+			if (!executor.awaitTermination(duration.toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS)) {
+				throw new IllegalStateException("Load run did not finish within a minute of its duration, results are partial");
+			}
+			for (Future<?> walker : walkers) {
+				walker.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Load worker failed, results are partial", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void walk(VaccineManagerInterface target, AtomicLong nextSlot, long interval, long deadline) {
+		RuntimeVertex current = startVertex;
+		step(target, current, nextSlot, interval);
+		while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+			List<RuntimeEdge> outEdges = model.getOutEdges(current);
+			if (outEdges == null || outEdges.isEmpty()) {
+				// dead end, start a new walk (the start vertex is known to have outgoing edges)
+				current = startVertex;
+				step(target, current, nextSlot, interval);
+				continue;
+			}
+			RuntimeEdge edge = outEdges.get(ThreadLocalRandom.current().nextInt(outEdges.size()));
+			step(target, edge, nextSlot, interval);
+			current = edge.getTargetVertex() != null ? edge.getTargetVertex() : startVertex;
+			step(target, current, nextSlot, interval);
+		}
+	}
+
+	/**
+	 * Waits for the next slot of the schedule and returns its intended start time. Returns early only
+	 * when the worker is interrupted.
+	 */
+	private static long pace(AtomicLong nextSlot, long interval) {
+		long intendedStart = nextSlot.getAndAdd(interval);
+		long now;
+		while ((now = System.nanoTime()) < intendedStart && !Thread.currentThread().isInterrupted()) {
+			LockSupport.parkNanos(intendedStart - now);
+		}
+		return intendedStart;
+	}
+
+	private void step(VaccineManagerInterface target, Element element, AtomicLong nextSlot, long interval) {
+		if (!element.hasName()) {
+			return;
+		}
+		Method method = steps.get(element.getName());
+		ElementStats elementStats = stats.get(element.getName());
+		long intendedStart = pace(nextSlot, interval);
+		Histogram latency = elementStats.success;
+		try {
+			method.invoke(target);
+		} catch (InvocationTargetException | IllegalAccessException e) {
+			latency = elementStats.failure;
+		} finally {
+			latency.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart)));
+		}
+	}
+
+	public List<ElementStats> getStats() {
+		return new ArrayList<>(stats.values());
+	}
+
+	public ElementStats getStats(String name) {
+		return stats.get(name);
+	}
+
+	public void writeCsv(Path path) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write("kind,element,outcome,count,mean_us,p50_us,p90_us,p99_us,p999_us,max_us\n");
+			for (ElementStats elementStats : stats.values()) {
+				writeCsvLine(writer, elementStats, "success", elementStats.success);
+				writeCsvLine(writer, elementStats, "failure", elementStats.failure);
+			}
+		}
+	}
+
+	private static void writeCsvLine(Writer writer, ElementStats elementStats, String outcome, Histogram latency) throws IOException {
+		StringBuilder line = new StringBuilder();
+		line.append(elementStats.kind).append(',').append(elementStats.name).append(',').append(outcome).append(',')
+				.append(latency.getTotalCount()).append(',')
+				.append(String.format(Locale.ROOT, "%.1f", latency.getMean()));
+		for (double percentile : PERCENTILES) {
+			line.append(',').append(latency.getValueAtPercentile(percentile));
+		}
+		line.append(',').append(latency.getMaxValue()).append('\n');
+		writer.write(line.toString());
+	}
+
+	public void writeJson(Path path) throws IOException {
+		StringBuilder json = new StringBuilder("{\"unit\":\"us\",\"elements\":[");
+		boolean first = true;
+		for (ElementStats elementStats : stats.values()) {
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+			json.append("{\"kind\":\"").append(elementStats.kind)
+					.append("\",\"element\":\"").append(elementStats.name)
+					.append("\",\"success\":");
+			appendJson(json, elementStats.success);
+			json.append(",\"failure\":");
+			appendJson(json, elementStats.failure);
+			json.append('}');
+		}
+		json.append("]}\n");
+		Files.write(path, json.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void appendJson(StringBuilder json, Histogram latency) {
+		json.append("{\"count\":").append(latency.getTotalCount())
+				.append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", latency.getMean()))
+				.append(",\"percentiles\":{");
+		for (int i = 0; i < PERCENTILES.length; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append('"').append(PERCENTILES[i]).append("\":").append(latency.getValueAtPercentile(PERCENTILES[i]));
+		}
+		json.append("},\"max\":").append(latency.getMaxValue()).append('}');
+	}
+
+	public static class ElementStats {
+
+		private final String kind;
+		private final String name;
+		private final Histogram success = new ConcurrentHistogram(3);
+		private final Histogram failure = new ConcurrentHistogram(3);
+
+		ElementStats(String kind, String name) {
+			this.kind = kind;
+			this.name = name;
+		}
+
+		public String getKind() {
+			return kind;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Histogram getSuccessLatency() {
+			return success;
+		}
+
+		public Histogram getFailureLatency() {
+			return failure;
+		}
+
+		public long getFailures() {
+			return failure.getTotalCount();
+		}
+	}
+}
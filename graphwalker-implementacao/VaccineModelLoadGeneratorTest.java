@@ -0,0 +1,221 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.vaccine.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graphwalker.core.model.Edge;
+import org.graphwalker.core.model.Model;
+import org.graphwalker.core.model.Model.RuntimeModel;
+import org.graphwalker.core.model.Vertex;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VaccineModelLoadGeneratorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RuntimeModel model;
+	private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+	@Before
+	public void setUp() {
+		Vertex list = new Vertex().setName("v_VaccineList");
+		Vertex created = new Vertex().setName("v_VaccineCreated");
+		Vertex deleted = new Vertex().setName("v_VaccineDeleted");
+		// v_VaccineDeleted is a dead end, so every walk restarts from v_VaccineList
+		model = new Model()
+				.addVertex(list)
+				.addVertex(created)
+				.addVertex(deleted)
+				.addEdge(new Edge().setName("e_createVaccine").setSourceVertex(list).setTargetVertex(created))
+				.addEdge(new Edge().setName("e_deleteVaccine").setSourceVertex(created).setTargetVertex(deleted))
+				.build();
+	}
+
+	private long calls(String name) {
+		AtomicLong count = calls.get(name);
+		return count == null ? 0 : count.get();
+	}
+
+	private static long count(VaccineModelLoadGenerator generator, String name) {
+		VaccineModelLoadGenerator.ElementStats elementStats = generator.getStats(name);
+		return elementStats.getSuccessLatency().getTotalCount() + elementStats.getFailureLatency().getTotalCount();
+	}
+
+	@Test
+	public void testRunRecordsEveryStep() throws Exception {
+		VaccineModelLoadGenerator generator = new VaccineModelLoadGenerator(worker -> new StubVaccineManager(0), model, "v_VaccineList");
+
+		generator.run(4, 400, Duration.ofSeconds(1));
+
+		for (String name : new String[] { "v_VaccineList", "e_createVaccine", "v_VaccineCreated", "e_deleteVaccine", "v_VaccineDeleted" }) {
+			assertThat(count(generator, name)).as(name).isEqualTo(calls(name));
+		}
+		// each restarted walk runs the start vertex again
+		assertThat(calls("v_VaccineList")).isBetween(calls("e_createVaccine"), calls("e_createVaccine") + 4);
+		assertThat(calls("v_VaccineDeleted")).isEqualTo(calls("e_deleteVaccine"));
+
+		assertThat(generator.getStats("e_deleteVaccine").getSuccessLatency().getTotalCount()).isZero();
+		assertThat(generator.getStats("e_deleteVaccine").getFailures()).isEqualTo(calls("e_deleteVaccine")).isPositive();
+		assertThat(generator.getStats("e_createVaccine").getFailures()).isZero();
+
+		long total = 0;
+		for (VaccineModelLoadGenerator.ElementStats elementStats : generator.getStats()) {
+			total += elementStats.getSuccessLatency().getTotalCount() + elementStats.getFailures();
+		}
+		// 400 slots per second, plus the steps of walks already started at the deadline
+		assertThat(total).isBetween(200L, 400L + 4 * 5);
+	}
+
+	@Test
+	public void testLatencyIncludesQueueingDelay() throws Exception {
+		VaccineModelLoadGenerator generator = new VaccineModelLoadGenerator(worker -> new StubVaccineManager(5), model, "v_VaccineList");
+
+		// one worker taking 5 ms per step cannot keep up with 1000 steps per second
+		generator.run(1, 1000, Duration.ofMillis(500));
+
+		assertThat(generator.getStats("v_VaccineList").getSuccessLatency().getMaxValue()).isGreaterThan(100_000L);
+	}
+
+	@Test
+	public void testWriteCsvAndJson() throws Exception {
+		VaccineModelLoadGenerator generator = new VaccineModelLoadGenerator(worker -> new StubVaccineManager(0), model, "v_VaccineList");
+		generator.run(2, 200, Duration.ofMillis(200));
+		Path csv = folder.getRoot().toPath().resolve("load.csv");
+		Path json = folder.getRoot().toPath().resolve("load.json");
+
+		generator.writeCsv(csv);
+		generator.writeJson(json);
+
+		List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+		assertThat(lines).hasSize(1 + 2 * 5);
+		assertThat(lines.get(0)).startsWith("kind,element,outcome,count");
+		assertThat(lines).contains("vertex,v_VaccineList,failure,0,0.0,0,0,0,0,0");
+		assertThat(lines).anyMatch(line -> line.startsWith("edge,e_deleteVaccine,failure," + calls("e_deleteVaccine") + ","));
+		assertThat(lines).anyMatch(line -> line.startsWith("edge,e_deleteVaccine,success,0,"));
+
+		String content = new String(Files.readAllBytes(json), StandardCharsets.UTF_8);
+		assertThat(content).startsWith("{\"unit\":\"us\",\"elements\":[");
+		assertThat(content).contains("{\"kind\":\"edge\",\"element\":\"e_deleteVaccine\",\"success\":{\"count\":0,");
+		assertThat(content).contains("\"failure\":{\"count\":" + calls("e_deleteVaccine") + ",");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStartVertexWithoutEdges() {
+		new VaccineModelLoadGenerator(worker -> new StubVaccineManager(0), model, "v_VaccineDeleted");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testElementWithoutMethod() {
+		RuntimeModel unknown = new Model()
+				.addEdge(new Edge().setName("e_unknown").setSourceVertex(new Vertex().setName("v_VaccineList")).setTargetVertex(new Vertex()))
+				.build();
+		new VaccineModelLoadGenerator(worker -> new StubVaccineManager(0), unknown, "v_VaccineList");
+	}
+
+	/**
+	 * Counts calls per step; e_deleteVaccine always fails.
+	 */
+	private class StubVaccineManager implements VaccineManagerInterface {
+
+		private final long stepMillis;
+
+		StubVaccineManager(long stepMillis) {
+			this.stepMillis = stepMillis;
+		}
+
+		private void call(String name) {
+			calls.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+			if (stepMillis > 0) {
+				try {
+					Thread.sleep(stepMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		@Override
+		public void e_deleteVaccine() {
+			call("e_deleteVaccine");
+			throw new IllegalStateException("delete failed");
+		}
+
+		@Override
+		public void e_listVaccines() {
+			call("e_listVaccines");
+		}
+
+		@Override
+		public void e_createVaccine() {
+			call("e_createVaccine");
+		}
+
+		@Override
+		public void v_VaccineCreated() {
+			call("v_VaccineCreated");
+		}
+
+		@Override
+		public void v_VaccineDeleted() {
+			call("v_VaccineDeleted");
+		}
+
+		@Override
+		public void e_updateVaccine() {
+			call("e_updateVaccine");
+		}
+
+		@Override
+		public void v_VaccineList() {
+			call("v_VaccineList");
+		}
+
+		@Override
+		public void e_notFindVaccine() {
+			call("e_notFindVaccine");
+		}
+
+		@Override
+		public void e_findVaccine() {
+			call("e_findVaccine");
+		}
+
+		@Override
+		public void v_VaccineUpdated() {
+			call("v_VaccineUpdated");
+		}
+	}
+}
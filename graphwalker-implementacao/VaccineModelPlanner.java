@@ -0,0 +1,271 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.vaccine.test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.graphwalker.core.model.Edge.RuntimeEdge;
+import org.graphwalker.core.model.Element;
+import org.graphwalker.core.model.Model.RuntimeModel;
+import org.graphwalker.core.model.Vertex.RuntimeVertex;
+import org.graphwalker.io.factory.json.JsonContextFactory;
+
+/**
+ * Computes a small set of test plans for the {@link VaccineManagerInterface} model, as an
+ * alternative to re-walking it with {@code quick_random}.
+ * <p>
+ * The model file is parsed once per JVM and cached. Plans are built greedily: the walk always moves
+ * along the shortest path to the nearest uncovered element, and is cut into a new plan every time
+ * it comes back to the start vertex, so each plan can run on a freshly cleaned database just like
+ * the hand-written {@code runVaccinesTests*} methods. This is a heuristic: the plans cover every
+ * reachable named edge (or vertex) but are not guaranteed to have the fewest possible steps.
+ * <p>
+ * Coverage is tracked per element instance, since the model reuses edge names (e.g.
+ * {@code e_findVaccine} leaves both {@code v_VaccineCreated} and {@code v_VaccineUpdated}).
+ * Unnamed elements are walked through but neither targeted nor emitted as steps.
+ */
+public final class VaccineModelPlanner {
+
+	public enum Coverage {
+		EDGE,
+		VERTEX
+	}
+
+	private static final Map<Path, RuntimeModel> MODELS = new ConcurrentHashMap<>();
+	private static final Map<String, Method> STEPS = new HashMap<>();
+
+	static {
+		for (Method method : VaccineManagerInterface.class.getMethods()) {
+			STEPS.put(method.getName(), method);
+		}
+	}
+
+	private VaccineModelPlanner() {
+	}
+
+	/**
+	 * Returns the parsed model for {@code modelPath}, reading the file only on first use.
+	 */
+	public static RuntimeModel loadModel(Path modelPath) {
+		return MODELS.computeIfAbsent(modelPath.toAbsolutePath().normalize(), path -> {
+			try {
+				return new JsonContextFactory().create(path).get(0).getModel();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Returns the {@link VaccineManagerInterface} method implementing the model element {@code name}.
+	 *
+	 * @throws IllegalArgumentException if the interface has no such method
+	 */
+	public static Method resolveStep(String name) {
+		Method method = STEPS.get(name);
+		if (method == null) {
+			throw new IllegalArgumentException("No VaccineManagerInterface method for model element: " + name);
+		}
+		return method;
+	}
+
+	/**
+	 * Returns the plans covering every named edge or every named vertex reachable from
+	 * {@code startVertexName}. Each plan is the ordered list of step names to execute, starting with
+	 * the start vertex.
+	 */
+	public static List<List<String>> plan(Path modelPath, String startVertexName, Coverage coverage) {
+		return plan(loadModel(modelPath), startVertexName, coverage);
+	}
+
+	public static List<List<String>> plan(RuntimeModel model, String startVertexName, Coverage coverage) {
+		List<List<String>> plans = new ArrayList<>();
+		for (List<Element> elements : planElements(model, startVertexName, coverage)) {
+			List<String> steps = new ArrayList<>();
+			for (Element element : elements) {
+				if (element.hasName()) {
+					steps.add(element.getName());
+				}
+			}
+			plans.add(steps);
+		}
+		return plans;
+	}
+
+	/**
+	 * Same as {@link #plan(RuntimeModel, String, Coverage)}, but returns the traversed model elements,
+	 * unnamed ones included.
+	 */
+	public static List<List<Element>> planElements(RuntimeModel model, String startVertexName, Coverage coverage) {
+		List<RuntimeVertex> found = model.findVertices(startVertexName);
+		if (found == null || found.isEmpty()) {
+			throw new IllegalArgumentException("Start vertex not found in model: " + startVertexName);
+		}
+		RuntimeVertex start = found.get(0);
+
+		Set<Element> uncovered = Collections.newSetFromMap(new IdentityHashMap<>());
+		if (coverage == Coverage.EDGE) {
+			for (RuntimeEdge edge : model.getEdges()) {
+				if (edge.getSourceVertex() != null && edge.getTargetVertex() != null && edge.hasName()) {
+					uncovered.add(edge);
+				}
+			}
+		} else {
+			for (RuntimeVertex vertex : model.getVertices()) {
+				if (vertex.hasName()) {
+					uncovered.add(vertex);
+				}
+			}
+		}
+		uncovered.remove(start);
+
+		List<List<Element>> plans = new ArrayList<>();
+		List<Element> current = newPlan(start);
+		RuntimeVertex position = start;
+		while (!uncovered.isEmpty()) {
+			List<RuntimeEdge> path = shortestPathToUncovered(model, position, uncovered, coverage);
+			if (path == null) {
+				if (position == start) {
+					// the remaining elements are unreachable from the start vertex
+					break;
+				}
+				plans.add(current);
+				current = newPlan(start);
+				position = start;
+				continue;
+			}
+			for (RuntimeEdge edge : path) {
+				RuntimeVertex target = edge.getTargetVertex();
+				current.add(edge);
+				current.add(target);
+				uncovered.remove(edge);
+				uncovered.remove(target);
+				position = target;
+				if (target == start) {
+					plans.add(current);
+					current = newPlan(start);
+				}
+			}
+		}
+		if (current.size() > 1) {
+			plans.add(current);
+		}
+		return plans;
+	}
+
+	private static List<Element> newPlan(RuntimeVertex start) {
+		return new ArrayList<>(Collections.singletonList(start));
+	}
+
+	private static List<RuntimeEdge> shortestPathToUncovered(RuntimeModel model, RuntimeVertex from,
+			Set<Element> uncovered, Coverage coverage) {
+		Map<RuntimeVertex, RuntimeEdge> reachedBy = new IdentityHashMap<>();
+		Set<RuntimeVertex> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<RuntimeVertex> queue = new ArrayDeque<>();
+		visited.add(from);
+		queue.add(from);
+		while (!queue.isEmpty()) {
+			RuntimeVertex vertex = queue.poll();
+			List<RuntimeEdge> outEdges = model.getOutEdges(vertex);
+			if (outEdges == null) {
+				continue;
+			}
+			for (RuntimeEdge edge : outEdges) {
+				RuntimeVertex target = edge.getTargetVertex();
+				if (target == null) {
+					continue;
+				}
+				if (uncovered.contains(coverage == Coverage.EDGE ? edge : target)) {
+					List<RuntimeEdge> path = new ArrayList<>();
+					path.add(edge);
+					for (RuntimeVertex step = vertex; step != from; step = reachedBy.get(step).getSourceVertex()) {
+						path.add(reachedBy.get(step));
+					}
+					Collections.reverse(path);
+					return path;
+				}
+				if (visited.add(target)) {
+					reachedBy.put(target, edge);
+					queue.add(target);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Invokes the steps of a plan, in order, on {@code target}.
+	 *
+	 * @throws IllegalArgumentException if a step has no {@link VaccineManagerInterface} method
+	 */
+	public static void execute(VaccineManagerInterface target, List<String> plan) throws Throwable {
+		List<Method> methods = new ArrayList<>(plan.size());
+		for (String step : plan) {
+			methods.add(resolveStep(step));
+		}
+		for (Method method : methods) {
+			try {
+				method.invoke(target);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Writes plans one per line, with steps separated by spaces.
+	 */
+	public static void writePlans(Path path, List<List<String>> plans) throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (List<String> plan : plans) {
+			lines.add(String.join(" ", plan));
+		}
+		Files.write(path, lines, StandardCharsets.UTF_8);
+	}
+
+	public static List<List<String>> readPlans(Path path) throws IOException {
+		List<List<String>> plans = new ArrayList<>();
+		for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+			if (!line.trim().isEmpty()) {
+				plans.add(Arrays.asList(line.trim().split("\\s+")));
+			}
+		}
+		return plans;
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2021 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.isf.vaccine.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.graphwalker.core.model.Edge;
+import org.graphwalker.core.model.Edge.RuntimeEdge;
+import org.graphwalker.core.model.Element;
+import org.graphwalker.core.model.Model;
+import org.graphwalker.core.model.Model.RuntimeModel;
+import org.graphwalker.core.model.Vertex;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VaccineModelPlannerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RuntimeModel model;
+
+	@Before
+	public void setUp() {
+		Vertex list = new Vertex().setId("v1").setName("v_VaccineList");
+		Vertex created = new Vertex().setId("v2").setName("v_VaccineCreated");
+		Vertex updated = new Vertex().setId("v3").setName("v_VaccineUpdated");
+		Vertex island = new Vertex().setId("v4").setName("v_VaccineDeleted");
+		// e_findVaccine is used twice, like in updatedmodel.json; v_VaccineDeleted is unreachable
+		model = new Model()
+				.addVertex(list)
+				.addVertex(created)
+				.addVertex(updated)
+				.addVertex(island)
+				.addEdge(new Edge().setId("e1").setName("e_createVaccine").setSourceVertex(list).setTargetVertex(created))
+				.addEdge(new Edge().setId("e2").setName("e_findVaccine").setSourceVertex(created).setTargetVertex(list))
+				.addEdge(new Edge().setId("e3").setName("e_updateVaccine").setSourceVertex(list).setTargetVertex(updated))
+				.addEdge(new Edge().setId("e4").setName("e_findVaccine").setSourceVertex(updated).setTargetVertex(list))
+				.addEdge(new Edge().setId("e5").setSourceVertex(list).setTargetVertex(list))
+				.addEdge(new Edge().setId("e6").setName("e_listVaccines").setSourceVertex(island).setTargetVertex(list))
+				.build();
+	}
+
+	/**
+	 * Checks that every plan is a walk from the start vertex and that all plans but the last one end there.
+	 */
+	private static void assertWalks(List<List<Element>> plans) {
+		for (int p = 0; p < plans.size(); p++) {
+			List<Element> plan = plans.get(p);
+			assertThat(plan.get(0).getName()).isEqualTo("v_VaccineList");
+			assertThat(plan.size() % 2).as("plan %d alternates vertices and edges", p).isEqualTo(1);
+			for (int i = 1; i < plan.size(); i += 2) {
+				RuntimeEdge edge = (RuntimeEdge) plan.get(i);
+				assertThat(edge.getSourceVertex()).isSameAs(plan.get(i - 1));
+				assertThat(edge.getTargetVertex()).isSameAs(plan.get(i + 1));
+			}
+			if (p < plans.size() - 1) {
+				assertThat(plan.get(plan.size() - 1).getName()).isEqualTo("v_VaccineList");
+			}
+		}
+	}
+
+	private static Set<String> coveredIds(List<List<Element>> plans) {
+		Set<String> covered = new HashSet<>();
+		for (List<Element> plan : plans) {
+			for (Element element : plan) {
+				covered.add(element.getId());
+			}
+		}
+		return covered;
+	}
+
+	@Test
+	public void testPlanEdgeCoverage() {
+		List<List<Element>> plans = VaccineModelPlanner.planElements(model, "v_VaccineList", VaccineModelPlanner.Coverage.EDGE);
+
+		assertWalks(plans);
+		assertThat(coveredIds(plans)).contains("e1", "e2", "e3", "e4").doesNotContain("e5", "e6");
+		// both e_findVaccine edges are traversed, in separate plans
+		assertThat(VaccineModelPlanner.plan(model, "v_VaccineList", VaccineModelPlanner.Coverage.EDGE)).containsExactly(
+				Arrays.asList("v_VaccineList", "e_createVaccine", "v_VaccineCreated", "e_findVaccine", "v_VaccineList"),
+				Arrays.asList("v_VaccineList", "e_updateVaccine", "v_VaccineUpdated", "e_findVaccine", "v_VaccineList"));
+	}
+
+	@Test
+	public void testPlanVertexCoverage() {
+		List<List<Element>> plans = VaccineModelPlanner.planElements(model, "v_VaccineList", VaccineModelPlanner.Coverage.VERTEX);
+
+		assertWalks(plans);
+		assertThat(coveredIds(plans)).contains("v1", "v2", "v3").doesNotContain("v4");
+		assertThat(VaccineModelPlanner.plan(model, "v_VaccineList", VaccineModelPlanner.Coverage.VERTEX)).containsExactly(
+				Arrays.asList("v_VaccineList", "e_createVaccine", "v_VaccineCreated", "e_findVaccine", "v_VaccineList"),
+				Arrays.asList("v_VaccineList", "e_updateVaccine", "v_VaccineUpdated"));
+	}
+
+	@Test
+	public void testPlanSkipsUnnamedSteps() {
+		Vertex list = new Vertex().setName("v_VaccineList");
+		Vertex created = new Vertex().setName("v_VaccineCreated");
+		RuntimeModel unnamed = new Model()
+				.addVertex(list)
+				.addVertex(created)
+				.addEdge(new Edge().setId("e1").setSourceVertex(list).setTargetVertex(created))
+				.addEdge(new Edge().setId("e2").setName("e_findVaccine").setSourceVertex(created).setTargetVertex(list))
+				.build();
+
+		List<List<Element>> plans = VaccineModelPlanner.planElements(unnamed, "v_VaccineList", VaccineModelPlanner.Coverage.EDGE);
+
+		assertWalks(plans);
+		assertThat(coveredIds(plans)).contains("e1", "e2");
+		assertThat(VaccineModelPlanner.plan(unnamed, "v_VaccineList", VaccineModelPlanner.Coverage.EDGE)).containsExactly(
+				Arrays.asList("v_VaccineList", "v_VaccineCreated", "e_findVaccine", "v_VaccineList"));
+	}
+
+	@Test
+	public void testPlanUnknownStartVertex() {
+		assertThatThrownBy(() -> VaccineModelPlanner.planElements(model, "v_Unknown", VaccineModelPlanner.Coverage.EDGE))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testLoadModel() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("model.json");
+		String json = "{\"models\":[{\"name\":\"VaccineManagerInterface\",\"generator\":\"random(edge_coverage(100))\","
+				+ "\"startElementId\":\"v1\",\"vertices\":[{\"id\":\"v1\",\"name\":\"v_VaccineList\"}],"
+				+ "\"edges\":[{\"id\":\"e1\",\"name\":\"e_listVaccines\",\"sourceVertexId\":\"v1\",\"targetVertexId\":\"v1\"}]}]}";
+		Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+
+		RuntimeModel loaded = VaccineModelPlanner.loadModel(file);
+
+		assertThat(VaccineModelPlanner.loadModel(file)).isSameAs(loaded);
+		assertThat(VaccineModelPlanner.plan(file, "v_VaccineList", VaccineModelPlanner.Coverage.EDGE)).containsExactly(
+				Arrays.asList("v_VaccineList", "e_listVaccines", "v_VaccineList"));
+	}
+
+	@Test
+	public void testWriteAndReadPlans() throws Exception {
+		List<List<String>> plans = VaccineModelPlanner.plan(model, "v_VaccineList", VaccineModelPlanner.Coverage.EDGE);
+		Path file = folder.getRoot().toPath().resolve("plans.txt");
+
+		VaccineModelPlanner.writePlans(file, plans);
+
+		assertThat(VaccineModelPlanner.readPlans(file)).isEqualTo(plans);
+	}
+
+	@Test
+	public void testExecute() throws Throwable {
+		List<String> invoked = new ArrayList<>();
+		VaccineManagerInterface target = (VaccineManagerInterface) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { VaccineManagerInterface.class }, (proxy, method, args) -> {
+					invoked.add(method.getName());
+					if (method.getName().equals("e_deleteVaccine")) {
+						throw new IllegalStateException("delete failed");
+					}
+					return null;
+				});
+
+		VaccineModelPlanner.execute(target, Arrays.asList("v_VaccineList", "e_createVaccine", "v_VaccineCreated"));
+		assertThat(invoked).containsExactly("v_VaccineList", "e_createVaccine", "v_VaccineCreated");
+
+		invoked.clear();
+		assertThatThrownBy(() -> VaccineModelPlanner.execute(target, Arrays.asList("v_VaccineList", "e_unknown")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(invoked).isEmpty();
+
+		assertThatThrownBy(() -> VaccineModelPlanner.execute(target, Arrays.asList("e_deleteVaccine", "v_VaccineDeleted")))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("delete failed");
+		assertThat(invoked).containsExactly("e_deleteVaccine");
+	}
+}
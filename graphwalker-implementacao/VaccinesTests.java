@@ -25,8 +25,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.InstanceOfAssertFactories.PATH;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 
 import org.assertj.core.api.Condition;
@@ -56,6 +58,7 @@ import org.isf.vaccine.service.VaccineIoOperations;
 import org.isf.vactype.model.VaccineType;
 import org.isf.vactype.service.VaccineTypeIoOperationRepository;
 import org.isf.vactype.test.TestVaccineType;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -207,4 +210,46 @@ public class VaccinesTests extends OHCoreTestCase implements VaccineManagerInter
 		e_listVaccines();
 		v_VaccineList();
 	}
+
+	@Test
+	public void runPlannedVaccinesTests() throws Throwable {
+		// Planned mode, enabled with -Dvaccines.planned=true; -Dvaccines.plan.file saves the plans, and
+		// a saved file must still match the plans of the current model
+		Assume.assumeTrue(Boolean.getBoolean("vaccines.planned"));
+		List<List<String>> plans = VaccineModelPlanner.plan(modelPath, "v_VaccineList", VaccineModelPlanner.Coverage.EDGE);
+		String planFile = System.getProperty("vaccines.plan.file");
+		if (planFile != null) {
+			if (Files.exists(Paths.get(planFile))) {
+				assertThat(VaccineModelPlanner.readPlans(Paths.get(planFile)))
+						.as("plans in %s are stale for %s, delete the file to re-plan", planFile, modelPath)
+						.isEqualTo(plans);
+			} else {
+				VaccineModelPlanner.writePlans(Paths.get(planFile), plans);
+			}
+		}
+		for (int i = 0; i < plans.size(); i++) {
+			if (i > 0) {
+				cleanH2InMemoryDb();
+			}
+			VaccineModelPlanner.execute(this, plans.get(i));
+		}
+	}
+
+	@Test
+	public void runVaccinesLoad() throws Exception {
+		// Load mode, enabled with -Dvaccines.load=true; results go to -Dvaccines.load.output (default target)
+		Assume.assumeTrue(Boolean.getBoolean("vaccines.load"));
+		VaccineType vaccineType = testVaccineType.setup(false);
+		vaccineTypeIoOperationRepository.saveAndFlush(vaccineType);
+		VaccineModelLoadGenerator generator = new VaccineModelLoadGenerator(
+				worker -> new VaccineLoadWalker(vaccineBrowserManager, vaccineIoOperationRepository, vaccineType, worker),
+				modelPath, "v_VaccineList");
+		generator.run(Integer.getInteger("vaccines.load.workers", 8),
+				Integer.getInteger("vaccines.load.rate", 200),
+				Duration.ofSeconds(Long.getLong("vaccines.load.seconds", 30)));
+		Path output = Paths.get(System.getProperty("vaccines.load.output", "target"));
+		Files.createDirectories(output);
+		generator.writeCsv(output.resolve("vaccines-load.csv"));
+		generator.writeJson(output.resolve("vaccines-load.json"));
+	}
 }